@@ -20,6 +20,9 @@ public class ApplicationConfiguration {
     @Value("${ADYEN_HMAC_KEY:#{null}}") // Don't edit @Value(...)
     private String adyenHmacKey; // We'll cover this in step 16.
 
+    @Value("${ADMIN_API_KEY:#{null}}")
+    private String adminApiKey; // Required in the X-Admin-Api-Key header for /admin/** endpoints.
+
     public int getServerPort() {
         return serverPort;
     }
@@ -59,4 +62,12 @@ public class ApplicationConfiguration {
     public void setAdyenHmacKey(String adyenHmacKey) {
         this.adyenHmacKey = adyenHmacKey;
     }
+
+    public String getAdminApiKey() {
+        return adminApiKey;
+    }
+
+    public void setAdminApiKey(String adminApiKey) {
+        this.adminApiKey = adminApiKey;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.adyen.workshop.configurations;
+
+import com.adyen.workshop.services.ResponseEncodingMetrics;
+import com.adyen.workshop.valves.ResponseEncodingMetricsValve;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Response encodings and their measurement.
+ *
+ * JSON stays the default; callers sending {@code Accept: application/x-jackson-smile} or
+ * {@code Accept: application/cbor} get Smile or CBOR instead. The converters are built from the
+ * Spring Boot configured builder, so the {@code spring.jackson.*} settings apply to every encoding.
+ * All converters stream straight to the response using Jackson's recycled generator buffers,
+ * so no intermediate String or byte[] is allocated per response.
+ *
+ * Each converter's write is timed for {@link ResponseEncodingMetrics}, and the
+ * {@link ResponseEncodingMetricsValve} records the response sizes once Tomcat has sent them.
+ */
+@Configuration
+public class ResponseEncodingConfiguration {
+    private final ResponseEncodingMetrics responseEncodingMetrics;
+
+    public ResponseEncodingConfiguration(ResponseEncodingMetrics responseEncodingMetrics) {
+        this.responseEncodingMetrics = responseEncodingMetrics;
+    }
+
+    // Replaces Spring Boot's default JSON converter
+    @Bean
+    MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                responseEncodingMetrics.timeSerialization(() -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                responseEncodingMetrics.timeSerialization(() -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                responseEncodingMetrics.timeSerialization(() -> super.writeInternal(object, type, outputMessage));
+            }
+        };
+    }
+
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> responseEncodingMetricsValve() {
+        return factory -> factory.addContextValves(new ResponseEncodingMetricsValve(responseEncodingMetrics));
+    }
+}
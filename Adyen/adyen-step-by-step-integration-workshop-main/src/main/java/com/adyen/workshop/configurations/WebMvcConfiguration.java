@@ -0,0 +1,20 @@
+package com.adyen.workshop.configurations;
+
+import com.adyen.workshop.interceptors.AdminApiKeyInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfiguration implements WebMvcConfigurer {
+    private final AdminApiKeyInterceptor adminApiKeyInterceptor;
+
+    public WebMvcConfiguration(AdminApiKeyInterceptor adminApiKeyInterceptor) {
+        this.adminApiKeyInterceptor = adminApiKeyInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(adminApiKeyInterceptor).addPathPatterns("/admin/**");
+    }
+}
@@ -0,0 +1,33 @@
+package com.adyen.workshop.controllers;
+
+import com.adyen.workshop.services.ResponseEncodingMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Admin REST controller exposing response sizes and serialization CPU per endpoint.
+ * Requests to {@code /admin/**} must carry the admin API key, see AdminApiKeyInterceptor.
+ */
+@RestController
+public class ResponseEncodingMetricsController {
+    private final ResponseEncodingMetrics responseEncodingMetrics;
+
+    public ResponseEncodingMetricsController(ResponseEncodingMetrics responseEncodingMetrics) {
+        this.responseEncodingMetrics = responseEncodingMetrics;
+    }
+
+    @GetMapping("/admin/metrics/responses")
+    public ResponseEntity<Map<String, ResponseEncodingMetrics.Summary>> responseMetrics() {
+        return ResponseEntity.ok(responseEncodingMetrics.getSummaries());
+    }
+
+    @DeleteMapping("/admin/metrics/responses")
+    public ResponseEntity<Void> resetResponseMetrics() {
+        responseEncodingMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
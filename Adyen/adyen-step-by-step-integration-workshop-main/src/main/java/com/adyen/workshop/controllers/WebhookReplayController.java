@@ -0,0 +1,75 @@
+package com.adyen.workshop.controllers;
+
+import com.adyen.workshop.services.WebhookReplayService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin REST controller for replaying archived Adyen webhook notifications.
+ * Requests to {@code /admin/**} must carry the admin API key, see AdminApiKeyInterceptor.
+ */
+@RestController
+public class WebhookReplayController {
+    private final Logger log = LoggerFactory.getLogger(WebhookReplayController.class);
+
+    private final WebhookReplayService webhookReplayService;
+
+    public WebhookReplayController(WebhookReplayService webhookReplayService) {
+        this.webhookReplayService = webhookReplayService;
+    }
+
+    @PostMapping("/admin/webhooks/replay")
+    public ResponseEntity<Map<String, Object>> replay(@RequestBody Map<String, Object> body) {
+        // Validate request body
+        if (body == null || !(body.get("archives") instanceof List<?> archives) || archives.isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "archives is required");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        // Resume from the checkpoint of a failed replay unless asked to start over
+        boolean resume = !Boolean.FALSE.equals(body.get("resume"));
+
+        // Archives are names inside webhook.replay.archive-dir, never arbitrary server paths
+        List<Path> paths = new ArrayList<>();
+        for (Object archive : archives) {
+            try {
+                paths.add(webhookReplayService.resolveArchive(archive instanceof String name ? name : null));
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+
+        if (!webhookReplayService.start(paths, resume)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "A webhook replay is already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
+        log.info("Started webhook replay of {} archives", paths.size());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Webhook replay started");
+        response.put("archives", archives);
+        response.put("resume", resume);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/admin/webhooks/replay")
+    public ResponseEntity<WebhookReplayService.ReplayStatus> replayStatus() {
+        return ResponseEntity.ok(webhookReplayService.getStatus());
+    }
+}
@@ -0,0 +1,55 @@
+package com.adyen.workshop.interceptors;
+
+import com.adyen.workshop.configurations.ApplicationConfiguration;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the {@code /admin/**} endpoints with the {@code ADMIN_API_KEY}.
+ *
+ * Requests must send the key in the {@code X-Admin-Api-Key} header. When no key is configured
+ * the admin endpoints are disabled altogether. Registered as a handler interceptor in
+ * {@link com.adyen.workshop.configurations.WebMvcConfiguration}, so it matches paths exactly like
+ * the controllers do (decoded, without {@code ;} path parameters).
+ */
+@Component
+public class AdminApiKeyInterceptor implements HandlerInterceptor {
+    public static final String ADMIN_API_KEY_HEADER = "X-Admin-Api-Key";
+
+    private final Logger log = LoggerFactory.getLogger(AdminApiKeyInterceptor.class);
+
+    private final ApplicationConfiguration applicationConfiguration;
+
+    public AdminApiKeyInterceptor(ApplicationConfiguration applicationConfiguration) {
+        this.applicationConfiguration = applicationConfiguration;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String adminApiKey = applicationConfiguration.getAdminApiKey();
+        if (adminApiKey == null || adminApiKey.isEmpty()) {
+            log.warn("Rejected admin request, ADMIN_API_KEY is not configured: {} {}", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+
+        String providedKey = request.getHeader(ADMIN_API_KEY_HEADER);
+        // Constant-time comparison, so the key cannot be guessed from response timings
+        if (providedKey == null || !MessageDigest.isEqual(
+                providedKey.getBytes(StandardCharsets.UTF_8), adminApiKey.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected admin request with missing or invalid API key: {} {}", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -39,7 +39,16 @@ public class RecurringTokenStore {
         log.info("Storing recurring token for shopper: {}", shopperReference);
         tokenStore.put(shopperReference, recurringDetailReference);
     }
-    
+
+    /**
+     * Store a batch of recurring tokens, e.g. when replaying archived webhooks
+     * @param tokens Map of shopperReference -> recurringDetailReference to store
+     */
+    public void storeTokens(Map<String, String> tokens) {
+        log.info("Storing {} recurring tokens", tokens.size());
+        tokenStore.putAll(tokens);
+    }
+
     /**
      * Get the recurring token for a shopper
      * @param shopperReference The unique reference for the shopper
@@ -0,0 +1,126 @@
+package com.adyen.workshop.services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory measurements of responses per endpoint and media type.
+ *
+ * For every response it records the body size the application wrote (JSON, Smile or CBOR, before
+ * compression), the body bytes Tomcat actually sent on the wire (after gzip and chunked framing,
+ * excluding headers), and the thread CPU time the message converter spent serializing the body.
+ */
+@Service
+public class ResponseEncodingMetrics {
+
+    // Request attribute accumulating the thread CPU time spent in message converter writes
+    public static final String SERIALIZATION_CPU_ATTRIBUTE = ResponseEncodingMetrics.class.getName() + ".serializationCpuNanos";
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    // Map of "METHOD /pattern mediaType" -> measurements
+    private final Map<String, Measurement> measurements = new ConcurrentHashMap<>();
+
+    /**
+     * A message converter write that may be timed
+     */
+    @FunctionalInterface
+    public interface ConverterWrite {
+        void write() throws IOException;
+    }
+
+    /**
+     * Run a message converter write, adding the thread CPU time it takes to the current request
+     * @param write The converter write to run
+     * @throws IOException if the write fails
+     */
+    public void timeSerialization(ConverterWrite write) throws IOException {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        // Thread CPU time may be unsupported, or disabled at runtime in which case it reads -1
+        if (requestAttributes == null || !threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            write.write();
+            return;
+        }
+
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        write.write();
+        long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - start;
+
+        Object previous = requestAttributes.getAttribute(SERIALIZATION_CPU_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        long total = previous instanceof Long previousNanos ? previousNanos + cpuNanos : cpuNanos;
+        requestAttributes.setAttribute(SERIALIZATION_CPU_ATTRIBUTE, total, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Record one completed response
+     * @param endpoint The HTTP method and path pattern, e.g. "POST /api/paymentMethods"
+     * @param mediaType The media type the body was encoded as
+     * @param uncompressedBytes The number of body bytes the application wrote, before compression
+     * @param wireBytes The number of body bytes sent on the wire, after compression
+     * @param serializationCpuNanos The thread CPU time the message converter spent writing the body, or -1 if not measured
+     */
+    public void record(String endpoint, String mediaType, long uncompressedBytes, long wireBytes, long serializationCpuNanos) {
+        Measurement measurement = measurements.computeIfAbsent(endpoint + " " + mediaType, key -> new Measurement());
+        measurement.responses.increment();
+        measurement.uncompressedBytes.add(uncompressedBytes);
+        measurement.wireBytes.add(wireBytes);
+        if (serializationCpuNanos >= 0) {
+            measurement.serializedResponses.increment();
+            measurement.serializationCpuNanos.add(serializationCpuNanos);
+        }
+    }
+
+    /**
+     * Get the measurements recorded so far
+     * @return Map of "METHOD /pattern mediaType" -> summary, sorted by key
+     */
+    public Map<String, Summary> getSummaries() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        measurements.forEach((key, measurement) -> summaries.put(key, measurement.summarize()));
+        return summaries;
+    }
+
+    /**
+     * Forget all measurements recorded so far
+     */
+    public void reset() {
+        measurements.clear();
+    }
+
+    private static class Measurement {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder uncompressedBytes = new LongAdder();
+        private final LongAdder wireBytes = new LongAdder();
+        private final LongAdder serializedResponses = new LongAdder();
+        private final LongAdder serializationCpuNanos = new LongAdder();
+
+        Summary summarize() {
+            long count = responses.sum();
+            long totalUncompressedBytes = uncompressedBytes.sum();
+            long totalWireBytes = wireBytes.sum();
+            long serialized = serializedResponses.sum();
+            return new Summary(count, totalUncompressedBytes, totalWireBytes,
+                    count > 0 ? totalUncompressedBytes / count : 0,
+                    count > 0 ? totalWireBytes / count : 0,
+                    serialized,
+                    serialized > 0 ? serializationCpuNanos.sum() / serialized / 1000 : 0);
+        }
+    }
+
+    /**
+     * Measurements for one endpoint and media type
+     */
+    public record Summary(long responses, long totalUncompressedBytes, long totalWireBytes,
+                          long averageUncompressedBytes, long averageWireBytes,
+                          long serializedResponses, long averageSerializationCpuMicros) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.adyen.workshop.services;
+
+import com.adyen.model.notification.NotificationRequestItem;
+import com.adyen.util.HMACValidator;
+import com.adyen.workshop.configurations.ApplicationConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Service;
+
+import java.security.SignatureException;
+import java.util.function.BiConsumer;
+
+/**
+ * Validates and processes Adyen notification items.
+ *
+ * Shared by the live {@code /webhooks} endpoint and the archive replay, so both
+ * apply exactly the same HMAC check and event handling.
+ */
+@Service
+public class WebhookNotificationService {
+    private final Logger log = LoggerFactory.getLogger(WebhookNotificationService.class);
+
+    private final ApplicationConfiguration applicationConfiguration;
+
+    private final HMACValidator hmacValidator;
+
+    private final RecurringTokenStore recurringTokenStore;
+
+    public WebhookNotificationService(ApplicationConfiguration applicationConfiguration, HMACValidator hmacValidator, RecurringTokenStore recurringTokenStore) {
+        this.applicationConfiguration = applicationConfiguration;
+        this.hmacValidator = hmacValidator;
+        this.recurringTokenStore = recurringTokenStore;
+    }
+
+    /**
+     * Check the HMAC signature of a notification item
+     * @param item The notification item to check
+     * @return true if the signature is valid or no HMAC key is configured, false otherwise
+     * @throws SignatureException if the signature could not be calculated
+     */
+    public boolean isValidHmac(NotificationRequestItem item) throws SignatureException {
+        if (!isHmacEnabled()) {
+            return true;
+        }
+        return hmacValidator.validateHMAC(item, applicationConfiguration.getAdyenHmacKey());
+    }
+
+    /**
+     * Check whether notifications are HMAC-validated
+     * @return true if an HMAC key is configured, false otherwise
+     */
+    public boolean isHmacEnabled() {
+        String hmacKey = applicationConfiguration.getAdyenHmacKey();
+        return hmacKey != null && !hmacKey.isEmpty();
+    }
+
+    /**
+     * Process a notification item, storing recurring tokens directly in the {@link RecurringTokenStore}
+     * @param item The notification item to process
+     */
+    public void process(NotificationRequestItem item) {
+        process(item, recurringTokenStore::storeToken, Level.INFO, Level.WARN);
+    }
+
+    /**
+     * Process a notification item at DEBUG log level, handing recurring tokens to the given writer.
+     * Used for bulk replays, which log a summary per batch instead of a line per item.
+     * @param item The notification item to process
+     * @param tokenWriter Receives (shopperReference, recurringDetailReference) for every token to store
+     */
+    public void processQuietly(NotificationRequestItem item, BiConsumer<String, String> tokenWriter) {
+        process(item, tokenWriter, Level.DEBUG, Level.DEBUG);
+    }
+
+    private void process(NotificationRequestItem item, BiConsumer<String, String> tokenWriter, Level infoLevel, Level warnLevel) {
+        String eventCode = item.getEventCode();
+        log.atLevel(infoLevel).log("Processing webhook - EventCode: {}, PSPReference: {}, Success: {}",
+                 eventCode, item.getPspReference(), item.isSuccess());
+
+        // Handle RECURRING_CONTRACT webhook
+        if ("RECURRING_CONTRACT".equals(eventCode)) {
+            handleRecurringContractWebhook(item, tokenWriter, infoLevel, warnLevel);
+        }
+
+        // Handle AUTHORISATION webhook
+        else if ("AUTHORISATION".equals(eventCode)) {
+            handleAuthorisationWebhook(item, infoLevel, warnLevel);
+        }
+
+        else {
+            log.atLevel(infoLevel).log("Unhandled webhook event code: {}", eventCode);
+        }
+    }
+
+    private void handleRecurringContractWebhook(NotificationRequestItem item, BiConsumer<String, String> tokenWriter, Level infoLevel, Level warnLevel) {
+        log.atLevel(infoLevel).log("Handling RECURRING_CONTRACT webhook");
+
+        if (item.isSuccess()) {
+            // Extract the recurring detail reference
+            String recurringDetailReference = item.getAdditionalData() != null ?
+                item.getAdditionalData().get("recurring.recurringDetailReference") : null;
+
+            String shopperReference = item.getAdditionalData() != null ?
+                item.getAdditionalData().get("recurring.shopperReference") : null;
+
+            if (recurringDetailReference != null && shopperReference != null) {
+                log.atLevel(infoLevel).log("Storing recurring token - Shopper: {}, Token: {}", shopperReference, recurringDetailReference);
+                tokenWriter.accept(shopperReference, recurringDetailReference);
+            } else {
+                log.atLevel(warnLevel).log("RECURRING_CONTRACT webhook missing required data - shopperReference: {}, recurringDetailReference: {}",
+                         shopperReference, recurringDetailReference);
+            }
+        } else {
+            log.atLevel(warnLevel).log("RECURRING_CONTRACT webhook failed for PSPReference: {}, Reason: {}",
+                     item.getPspReference(), item.getReason());
+        }
+    }
+
+    private void handleAuthorisationWebhook(NotificationRequestItem item, Level infoLevel, Level warnLevel) {
+        log.atLevel(infoLevel).log("Handling AUTHORISATION webhook");
+
+        if (item.isSuccess()) {
+            log.atLevel(infoLevel).log("Authorization successful - PSPReference: {}, Amount: {} {}, MerchantReference: {}",
+                     item.getPspReference(),
+                     item.getAmount().getValue(),
+                     item.getAmount().getCurrency(),
+                     item.getMerchantReference());
+        } else {
+            log.atLevel(warnLevel).log("Authorization failed - PSPReference: {}, Reason: {}, MerchantReference: {}",
+                     item.getPspReference(),
+                     item.getReason(),
+                     item.getMerchantReference());
+        }
+    }
+}
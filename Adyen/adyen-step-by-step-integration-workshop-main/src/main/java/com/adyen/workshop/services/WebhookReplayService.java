@@ -0,0 +1,373 @@
+package com.adyen.workshop.services;
+
+import com.adyen.model.notification.NotificationRequest;
+import com.adyen.model.notification.NotificationRequestItem;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays archived Adyen notifications to rebuild state, e.g. the {@link RecurringTokenStore} after an outage.
+ *
+ * Archive files live in {@code webhook.replay.archive-dir} and contain one notification request JSON
+ * (as posted to {@code /webhooks}) per line. Files are read through memory-mapped windows, lines are
+ * parsed, HMAC-checked and processed in parallel batches by the {@link WebhookNotificationService},
+ * and the resulting tokens are written to the store in batches, in archive order, so the latest
+ * notification for a shopper wins.
+ *
+ * After every window of batches the byte offset reached in each file is checkpointed, so a failed
+ * replay resumes where it stopped when started again, unless it is started with {@code resume}
+ * set to false. The checkpoint is kept in memory, like the
+ * {@link RecurringTokenStore} it describes: a restart loses both, so the next replay starts from the
+ * beginning. It is cleared once a replay completes.
+ */
+@Service
+public class WebhookReplayService {
+    private final Logger log = LoggerFactory.getLogger(WebhookReplayService.class);
+
+    // Size of each memory-mapped region; a single line must fit in one region
+    private static final long MAP_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final WebhookNotificationService webhookNotificationService;
+
+    private final RecurringTokenStore recurringTokenStore;
+
+    // Null when no archive directory is configured, which disables replay
+    private final Path archiveDir;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    // Map of archive -> byte offset of the next line to replay
+    private final Map<Path, Long> checkpoint = new ConcurrentHashMap<>();
+
+    // Runs the replay job itself, so the admin endpoint can return immediately
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile ReplayStatus status = ReplayStatus.idle();
+
+    public WebhookReplayService(WebhookNotificationService webhookNotificationService,
+                                RecurringTokenStore recurringTokenStore,
+                                @Value("${webhook.replay.archive-dir:}") String archiveDir,
+                                @Value("${webhook.replay.threads:0}") int threads,
+                                @Value("${webhook.replay.batch-size:1000}") int batchSize) {
+        this.webhookNotificationService = webhookNotificationService;
+        this.recurringTokenStore = recurringTokenStore;
+        this.archiveDir = archiveDir == null || archiveDir.isBlank() ? null : Path.of(archiveDir).toAbsolutePath().normalize();
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Resolve an archive name against the configured archive directory
+     * @param name The archive file name, relative to {@code webhook.replay.archive-dir}
+     * @return The archive file
+     * @throws IllegalArgumentException if replay is not configured, or the name does not refer to a readable file inside the archive directory
+     */
+    public Path resolveArchive(String name) {
+        if (archiveDir == null) {
+            throw new IllegalArgumentException("Webhook replay is not configured");
+        }
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Archive name is required");
+        }
+        try {
+            Path archive = archiveDir.resolve(name).normalize();
+            // Check again after resolving symlinks, so a link cannot point outside the archive directory
+            if (archive.startsWith(archiveDir) && Files.isRegularFile(archive) && Files.isReadable(archive)
+                    && archive.toRealPath().startsWith(archiveDir.toRealPath())) {
+                return archive;
+            }
+        } catch (InvalidPathException | IOException e) {
+            // Reported below without the underlying path details
+        }
+        throw new IllegalArgumentException("Unknown archive: " + name);
+    }
+
+    /**
+     * Start replaying the given archive files in the background
+     * @param archives The archive files to replay, in chronological order, as returned by {@link #resolveArchive(String)}
+     * @param resume true to resume from the checkpoint of a previous failed replay, false to discard it and start over
+     * @return true if the replay was started, false if a replay is already running
+     */
+    public boolean start(List<Path> archives, boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        status = ReplayStatus.started();
+        jobExecutor.submit(() -> {
+            try {
+                if (!resume && !checkpoint.isEmpty()) {
+                    log.info("Discarding webhook replay checkpoint of {} archives", checkpoint.size());
+                    checkpoint.clear();
+                }
+                replay(archives);
+            } catch (Exception e) {
+                log.error("Webhook replay failed: {}", e.getMessage(), e);
+                status = status.failed(e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Get the progress of the current or last replay
+     * @return The replay status
+     */
+    public ReplayStatus getStatus() {
+        return status;
+    }
+
+    // Only called from the job started by start(), so at most one replay uses the checkpoint at a time
+    private void replay(List<Path> archives) throws IOException, InterruptedException, ExecutionException {
+        status = ReplayStatus.started();
+        if (!checkpoint.isEmpty()) {
+            log.info("Resuming webhook replay from checkpoint of {} archives", checkpoint.size());
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            for (Path archive : archives) {
+                replayFile(archive, workers);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        checkpoint.clear();
+        status = status.completed();
+        log.info("Webhook replay completed - Items: {}, Rejected: {}, Failed items: {}, Failed lines: {}, {} items/sec",
+                 status.items(), status.rejected(), status.failedItems(), status.failedLines(), status.itemsPerSecond());
+    }
+
+    private void replayFile(Path archive, ExecutorService workers)
+            throws IOException, InterruptedException, ExecutionException {
+        String name = archiveDir != null ? archiveDir.relativize(archive).toString() : archive.getFileName().toString();
+        long position = checkpoint.getOrDefault(archive, 0L);
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(archive, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // The message would contain the absolute path, which is reported in the replay status
+            throw new IOException("Cannot open archive " + name + ": " + e.getClass().getSimpleName(), e);
+        }
+
+        try (channel) {
+            long size = channel.size();
+            if (position >= size) {
+                log.info("Skipping already replayed archive: {}", name);
+                return;
+            }
+            log.info("Replaying archive: {} from offset {} of {}", name, position, size);
+
+            // Batches are processed in parallel, but applied in order, a window at a time
+            List<Future<BatchResult>> window = new ArrayList<>();
+            List<String> lines = new ArrayList<>(batchSize);
+
+            while (position < size) {
+                long length = Math.min(MAP_WINDOW_BYTES, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastRegion = position + length == size;
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        addLine(buffer, lineStart, i, lines);
+                        lineStart = i + 1;
+                    } else if (lastRegion && i == length - 1) {
+                        // Final line without a trailing newline
+                        addLine(buffer, lineStart, i + 1, lines);
+                        lineStart = i + 1;
+                    } else {
+                        continue;
+                    }
+
+                    if (lines.size() == batchSize) {
+                        window.add(submit(workers, lines, position + lineStart));
+                        lines = new ArrayList<>(batchSize);
+                        if (window.size() == threads * 2) {
+                            apply(window, archive, name);
+                        }
+                    }
+                }
+
+                if (lineStart == 0) {
+                    throw new IOException("Line at offset " + position + " in " + name + " exceeds " + MAP_WINDOW_BYTES + " bytes");
+                }
+                position += lineStart;
+            }
+
+            if (!lines.isEmpty()) {
+                window.add(submit(workers, lines, size));
+            }
+            apply(window, archive, name);
+            // Also covers blank lines left after the last batch
+            checkpoint.put(archive, size);
+        }
+    }
+
+    private static void addLine(MappedByteBuffer buffer, int start, int end, List<String> lines) {
+        int length = end - start;
+        if (length > 0 && buffer.get(end - 1) == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        lines.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private Future<BatchResult> submit(ExecutorService workers, List<String> lines, long endOffset) {
+        return workers.submit(() -> processBatch(lines, endOffset));
+    }
+
+    private BatchResult processBatch(List<String> lines, long endOffset) {
+        Map<String, String> tokens = new LinkedHashMap<>();
+        long items = 0;
+        long rejected = 0;
+        long failedItems = 0;
+        long failedLines = 0;
+
+        for (String line : lines) {
+            List<NotificationRequestItem> notificationItems;
+            try {
+                NotificationRequest notificationRequest = NotificationRequest.fromJson(line);
+                // "null" parses to no request, and "{}" to a request without items
+                notificationItems = notificationRequest != null ? notificationRequest.getNotificationItems() : null;
+            } catch (Exception e) {
+                log.debug("Skipping unreadable archived notification: {}", e.getMessage());
+                failedLines++;
+                continue;
+            }
+            if (notificationItems == null) {
+                log.debug("Skipping archived notification without notification items");
+                failedLines++;
+                continue;
+            }
+
+            for (NotificationRequestItem item : notificationItems) {
+                items++;
+                if (item == null) {
+                    failedItems++;
+                    continue;
+                }
+                try {
+                    if (!webhookNotificationService.isValidHmac(item)) {
+                        log.debug("Skipping notification with invalid HMAC signature: {}", item.getPspReference());
+                        rejected++;
+                        continue;
+                    }
+                } catch (SignatureException | IllegalArgumentException e) {
+                    // Same as the live endpoint: e.g. an item archived before HMAC signing was enabled
+                    log.debug("Skipping notification with HMAC validation error: {}", item.getPspReference());
+                    rejected++;
+                    continue;
+                }
+
+                try {
+                    webhookNotificationService.processQuietly(item, tokens::put);
+                } catch (RuntimeException e) {
+                    log.debug("Skipping notification that could not be processed: {}", item.getPspReference());
+                    failedItems++;
+                }
+            }
+        }
+        return new BatchResult(tokens, items, rejected, failedItems, failedLines, endOffset);
+    }
+
+    private void apply(List<Future<BatchResult>> window, Path archive, String name)
+            throws InterruptedException, ExecutionException {
+        if (window.isEmpty()) {
+            return;
+        }
+        long endOffset = 0;
+        int tokens = 0;
+        for (Future<BatchResult> future : window) {
+            BatchResult result = future.get();
+            if (!result.tokens().isEmpty()) {
+                recurringTokenStore.storeTokens(result.tokens());
+                tokens += result.tokens().size();
+            }
+            status = status.add(result, name);
+            endOffset = result.endOffset();
+        }
+        window.clear();
+
+        checkpoint.put(archive, endOffset);
+        log.info("Webhook replay progress - Archive: {}, Offset: {}, Tokens stored: {}, Items: {}, Rejected: {}, Failed items: {}, Failed lines: {}, {} items/sec",
+                 name, endOffset, tokens, status.items(), status.rejected(), status.failedItems(), status.failedLines(), status.itemsPerSecond());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private record BatchResult(Map<String, String> tokens, long items, long rejected, long failedItems, long failedLines, long endOffset) {
+    }
+
+    /**
+     * Progress of a webhook replay
+     */
+    public record ReplayStatus(String state, String lastArchive, long items, long rejected, long failedItems,
+                               long failedLines, long startedAtMillis, long elapsedMillis, String error) {
+
+        static ReplayStatus idle() {
+            return new ReplayStatus("IDLE", null, 0, 0, 0, 0, 0, 0, null);
+        }
+
+        static ReplayStatus started() {
+            return new ReplayStatus("RUNNING", null, 0, 0, 0, 0, System.currentTimeMillis(), 0, null);
+        }
+
+        ReplayStatus add(BatchResult result, String archive) {
+            return new ReplayStatus(state, archive, items + result.items(), rejected + result.rejected(),
+                    failedItems + result.failedItems(), failedLines + result.failedLines(),
+                    startedAtMillis, System.currentTimeMillis() - startedAtMillis, error);
+        }
+
+        ReplayStatus completed() {
+            return new ReplayStatus("COMPLETED", lastArchive, items, rejected, failedItems, failedLines,
+                    startedAtMillis, System.currentTimeMillis() - startedAtMillis, null);
+        }
+
+        ReplayStatus failed(String message) {
+            return new ReplayStatus("FAILED", lastArchive, items, rejected, failedItems, failedLines,
+                    startedAtMillis, System.currentTimeMillis() - startedAtMillis, message);
+        }
+
+        @JsonProperty("itemsPerSecond")
+        public long itemsPerSecond() {
+            return elapsedMillis > 0 ? items * 1000 / elapsedMillis : 0;
+        }
+    }
+}
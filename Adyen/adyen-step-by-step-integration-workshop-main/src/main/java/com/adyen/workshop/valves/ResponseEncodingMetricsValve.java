@@ -0,0 +1,61 @@
+package com.adyen.workshop.valves;
+
+import com.adyen.workshop.services.ResponseEncodingMetrics;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.AccessLog;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records every completed response in {@link ResponseEncodingMetrics}.
+ *
+ * Runs as a Tomcat access log valve rather than a servlet filter: Tomcat only calls it once the
+ * response is finished, and gzip compression happens below the servlet API, so this is the only
+ * point where the compressed byte count (the same value as the access log's {@code %B}) is known.
+ */
+public class ResponseEncodingMetricsValve extends ValveBase implements AccessLog {
+    private final ResponseEncodingMetrics responseEncodingMetrics;
+
+    public ResponseEncodingMetricsValve(ResponseEncodingMetrics responseEncodingMetrics) {
+        super(true);
+        this.responseEncodingMetrics = responseEncodingMetrics;
+    }
+
+    @Override
+    public void invoke(Request request, Response response) throws IOException, ServletException {
+        getNext().invoke(request, response);
+    }
+
+    @Override
+    public void log(Request request, Response response, long time) {
+        // Only requests handled by Spring MVC have an endpoint pattern to group by
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+
+        String endpoint = request.getMethod() + " " + pattern;
+        String contentType = response.getContentType();
+        String mediaType = contentType != null ? contentType.split(";")[0].trim() : "none";
+        Object serializationCpu = request.getAttribute(ResponseEncodingMetrics.SERIALIZATION_CPU_ATTRIBUTE);
+
+        responseEncodingMetrics.record(endpoint, mediaType,
+                response.getContentWritten(),
+                response.getBytesWritten(false),
+                serializationCpu instanceof Long cpuNanos ? cpuNanos : -1);
+    }
+
+    // Required by AccessLog; this valve never reads the remote address/host/protocol attributes, so the flag is ignored
+    @Override
+    public void setRequestAttributesEnabled(boolean requestAttributesEnabled) {
+    }
+
+    @Override
+    public boolean getRequestAttributesEnabled() {
+        return false;
+    }
+}